@@ -3,17 +3,17 @@ package io.github.bondalen.fepro.config;
 import io.r2dbc.spi.ConnectionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.r2dbc.connection.R2dbcTransactionManager;
 import org.springframework.transaction.ReactiveTransactionManager;
 
 /**
  * Конфигурация базы данных
+ * ConnectionFactory создается автоконфигурацией Spring Boot из spring.r2dbc.*
  */
 @Configuration
 @EnableR2dbcRepositories(basePackages = "io.github.bondalen.fepro.repository")
-public class DatabaseConfig extends AbstractR2dbcConfiguration {
+public class DatabaseConfig {
 
     @Bean
     public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory) {
@@ -0,0 +1,59 @@
+package io.github.bondalen.fepro.config;
+
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.SecurityFilterChain;
+
+/**
+ * Конфигурация безопасности для нагрузочного тестирования.
+ * Активна только в профиле loadtest: все запросы по-прежнему требуют аутентификации
+ * (Basic, пользователь spring.security.user). Отключена лишь CSRF-защита:
+ * с ней генератор нагрузки не может выполнять POST /graphql
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestSecurityConfig {
+
+    @Bean
+    public SecurityFilterChain loadTestSecurityFilterChain(HttpSecurity http) throws Exception {
+        return http
+                .authorizeHttpRequests(auth -> auth.anyRequest().authenticated())
+                .httpBasic(Customizer.withDefaults())
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .build();
+    }
+
+    /**
+     * Пользователь spring.security.user без перекодирования пароля.
+     * Стандартный InMemoryUserDetailsManager после первого входа заменяет пароль {noop}
+     * на BCrypt, и без сессий каждый запрос тратит на проверку пароля больше времени,
+     * чем на сам GraphQL-запрос
+     */
+    @Bean
+    public UserDetailsService loadTestUserDetailsService(SecurityProperties properties) {
+        SecurityProperties.User user = properties.getUser();
+        UserDetails details = User.withUsername(user.getName())
+                .password("{noop}" + user.getPassword())
+                .roles(user.getRoles().toArray(String[]::new))
+                .build();
+
+        return username -> {
+            if (!details.getUsername().equals(username)) {
+                throw new UsernameNotFoundException(username);
+            }
+            // Копия: после аутентификации пароль в возвращенном объекте стирается
+            return User.withUserDetails(details).build();
+        };
+    }
+}
@@ -43,7 +43,9 @@ public class ContractorService {
     public Mono<Contractor> createContractor(Contractor contractor) {
         log.debug("Creating contractor: {}", contractor.getName());
         
-        contractor.setId(UUID.randomUUID());
+        // ID не задается: при заполненном @Id Spring Data R2DBC выполняет UPDATE вместо INSERT,
+        // значение генерирует база данных (gen_random_uuid())
+        contractor.setId(null);
         contractor.setCreatedAt(LocalDateTime.now());
         contractor.setUpdatedAt(LocalDateTime.now());
         
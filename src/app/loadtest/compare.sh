@@ -0,0 +1,78 @@
+#!/bin/bash
+# FEPRO - Federation Professionals
+# Compare two load test runs (e.g. two commits)
+#
+# Usage: ./src/app/loadtest/compare.sh <baseline_results_dir> <candidate_results_dir>
+# Runs with errors or dropped iterations are refused; FORCE=1 compares them anyway
+# Example: ./src/app/loadtest/compare.sh results/20251018-101500-354b420 results/20251018-113000-a1b2c3d
+
+set -e
+
+BASELINE="$1"
+CANDIDATE="$2"
+
+if [ ! -f "$BASELINE/report.json" ] || [ ! -f "$CANDIDATE/report.json" ]; then
+    echo "Usage: $0 <baseline_results_dir> <candidate_results_dir>" >&2
+    exit 1
+fi
+
+table() {
+    if command -v column &> /dev/null; then
+        column -t
+    else
+        cat
+    fi
+}
+
+jq -r '"a (baseline):  \(.meta.commit[0:10])\(if .meta.dirty then "-dirty" else "" end) \(.meta.date)"' "$BASELINE/report.json"
+jq -r '"b (candidate): \(.meta.commit[0:10])\(if .meta.dirty then "-dirty" else "" end) \(.meta.date)"' "$CANDIDATE/report.json"
+
+for report in "$BASELINE/report.json" "$CANDIDATE/report.json"; do
+    if [ "$(jq -r .valid "$report")" != "true" ]; then
+        echo "ERROR: $report is not a valid run:" >&2
+        jq -r '(.problems // ["not validated (report predates error checks)"])[] | "  - " + .' "$report" >&2
+        if [ "${FORCE:-0}" != "1" ]; then
+            echo "Refusing to compare; set FORCE=1 to compare anyway" >&2
+            exit 1
+        fi
+        echo "WARNING: FORCE=1, comparing an invalid run" >&2
+    fi
+done
+
+# Warn when a meta field differs: <field> <description>
+check_meta() {
+    local a b
+    a=$(jq -c ".meta.$1" "$BASELINE/report.json")
+    b=$(jq -c ".meta.$1" "$CANDIDATE/report.json")
+    if [ "$a" != "$b" ]; then
+        echo "WARNING: runs used different $2, results are not directly comparable" >&2
+        echo "  a: $a" >&2
+        echo "  b: $b" >&2
+    fi
+}
+
+check_meta k6 "load parameters"
+check_meta dataset "datasets"
+check_meta javaOpts "JVM options"
+check_meta cpus "CPU counts"
+
+echo
+jq -rn \
+    --slurpfile a "$BASELINE/report.json" \
+    --slurpfile b "$CANDIDATE/report.json" \
+    'def delta(x; y): if (x // 0) == 0 then "-" else "\(((y - x) / x * 1000 | round) / 10)%" end;
+     def ms(x): x | round;
+     def queries(x): [x[]] | add // 0;
+     (["op", "p50:a", "p50:b", "p95:a", "p95:b", "Δp95", "p99:a", "p99:b", "Δp99", "rps:a", "rps:b", "repo/req:a", "repo/req:b"] | @tsv),
+     ($a[0].operations | keys[]) as $op
+     | ($a[0].operations[$op]) as $x
+     | ($b[0].operations[$op] // empty) as $y
+     | [
+         $op,
+         ms($x.latencyMs.med), ms($y.latencyMs.med),
+         ms($x.latencyMs.p95), ms($y.latencyMs.p95), delta($x.latencyMs.p95; $y.latencyMs.p95),
+         ms($x.latencyMs.p99), ms($y.latencyMs.p99), delta($x.latencyMs.p99; $y.latencyMs.p99),
+         ($x.rps * 100 | round / 100), ($y.rps * 100 | round / 100),
+         queries($x.repositoryQueriesPerRequest), queries($y.repositoryQueriesPerRequest)
+       ]
+     | @tsv' | table
@@ -0,0 +1,241 @@
+// FEPRO - Federation Professionals
+// Смешанная нагрузка на /graphql: list, search, nearby, detail, create, update.
+// Каждая операция - отдельный сценарий constant-arrival-rate, поэтому частота
+// запросов не зависит от времени ответа сервера и прогоны разных коммитов сопоставимы.
+//
+// Usage: k6 run -e BASE_URL=http://localhost:8082 k6/graphql-mixed.js
+// (обычно запускается через ../run.sh)
+
+import http from 'k6/http';
+import crypto from 'k6/crypto';
+import encoding from 'k6/encoding';
+import exec from 'k6/execution';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8082';
+const GRAPHQL_URL = `${BASE_URL}${__ENV.GRAPHQL_PATH || '/graphql'}`;
+const CONTRACTORS = Number(__ENV.CONTRACTORS || 1000000);
+const UPDATE_WINDOW = Number(__ENV.UPDATE_WINDOW || 10000);
+const SEED = __ENV.SEED || '42';
+const DURATION = __ENV.DURATION || '5m';
+const SUMMARY_FILE = __ENV.SUMMARY_FILE || 'k6-summary.json';
+// Этап прогона (calibration, warmup, load) входит в затравку выбора параметров,
+// чтобы прогрев не кэшировал заранее именно те записи, которые читает замер
+const PHASE = __ENV.PHASE || 'load';
+
+// Запросов в секунду по операциям, допускаются дробные (0.1 - раз в 10 секунд); 0 отключает сценарий.
+// list_all читает всю таблицу (contractors без пагинации) и по умолчанию выключен.
+// search и nearby - полные просмотры таблицы, поэтому их частоты по умолчанию малы (см. README).
+const RATES = {
+    list: Number(__ENV.RATE_LIST || 0.05),
+    list_all: Number(__ENV.RATE_LIST_ALL || 0),
+    search: Number(__ENV.RATE_SEARCH || 0.1),
+    nearby: Number(__ENV.RATE_NEARBY || 0.05),
+    detail: Number(__ENV.RATE_DETAIL || 5),
+    create: Number(__ENV.RATE_CREATE || 1),
+    update: Number(__ENV.RATE_UPDATE || 1),
+};
+
+const QUERIES = {
+    list: `query List($status: ContractorStatus!) {
+        contractorsByStatus(status: $status) { id name status }
+    }`,
+    list_all: `query ListAll {
+        contractors { id name status }
+    }`,
+    search: `query Search($name: String!) {
+        searchContractors(name: $name) { id name inn status }
+    }`,
+    nearby: `query Nearby($lat: Float!, $lng: Float!, $radius: Float!) {
+        nearbyContractors(lat: $lat, lng: $lng, radius: $radius) { id name address }
+    }`,
+    detail: `query Detail($id: ID!) {
+        contractor(id: $id) { id name legalName inn kpp email phone address status createdAt updatedAt }
+    }`,
+    create: `mutation Create($input: CreateContractorInput!) {
+        createContractor(input: $input) { id }
+    }`,
+    update: `mutation Update($input: UpdateContractorInput!) {
+        updateContractor(input: $input) { id updatedAt }
+    }`,
+};
+
+const graphqlErrors = new Counter('graphql_errors');
+
+// ONLY_OP + ITERATIONS - режим калибровки: одна операция, фиксированное число
+// последовательных запросов (по нему run.sh считает запросы к БД на операцию)
+const ONLY_OP = __ENV.ONLY_OP || '';
+const ITERATIONS = Number(__ENV.ITERATIONS || 0);
+
+function enabled(op) {
+    return ONLY_OP ? op === ONLY_OP : RATES[op] > 0;
+}
+
+function scenarios() {
+    const result = {};
+    for (const [op, rate] of Object.entries(RATES)) {
+        if (!enabled(op)) {
+            continue;
+        }
+        if (ITERATIONS > 0) {
+            result[op] = {
+                executor: 'per-vu-iterations',
+                exec: 'run',
+                vus: 1,
+                iterations: ITERATIONS,
+                maxDuration: DURATION,
+                env: { OP: op },
+                tags: { op: op },
+            };
+            continue;
+        }
+        // k6 принимает только целое число итераций за timeUnit, поэтому дробные частоты
+        // задаются в итерациях в минуту. Если свободного VU нет, k6 пропускает итерацию,
+        // даже не достигнув maxVUs, поэтому VU выделяются заранее с запасом на ответы до 5 с
+        result[op] = {
+            executor: 'constant-arrival-rate',
+            exec: 'run',
+            rate: Math.max(1, Math.round(rate * 60)),
+            timeUnit: '1m',
+            duration: DURATION,
+            preAllocatedVUs: Math.max(4, Math.ceil(rate * 5)),
+            maxVUs: Math.max(10, Math.ceil(rate * 10)),
+            env: { OP: op },
+            tags: { op: op },
+        };
+    }
+    return result;
+}
+
+// Любая ошибка GraphQL, HTTP-ошибка или пропущенная итерация (сервер не выдержал заданную
+// частоту) проваливает прогон: k6 завершается с кодом 99, run.sh помечает результат невалидным.
+// Пустые thresholds для http_req_duration/http_reqs нужны только для подметрик по операциям.
+function thresholds() {
+    const result = { dropped_iterations: ['count==0'] };
+    for (const op of Object.keys(RATES)) {
+        if (!enabled(op)) {
+            continue;
+        }
+        result[`http_req_duration{op:${op}}`] = [];
+        result[`http_reqs{op:${op}}`] = [];
+        result[`http_req_failed{op:${op}}`] = ['rate==0'];
+        result[`graphql_errors{op:${op}}`] = ['count==0'];
+    }
+    return result;
+}
+
+export const options = {
+    scenarios: scenarios(),
+    thresholds: thresholds(),
+    summaryTrendStats: ['avg', 'min', 'med', 'p(90)', 'p(95)', 'p(99)', 'max', 'count'],
+    discardResponseBodies: false,
+};
+
+// Детерминированный выбор значений: зависит только от SEED, этапа, операции и номера итерации
+// в сценарии. __VU и __ITER не годятся: при constant-arrival-rate итерации распределяются
+// по VU в зависимости от времени ответа
+function iteration() {
+    return exec.scenario.iterationInTest;
+}
+
+function hash32(value) {
+    return parseInt(crypto.md5(value, 'hex').substring(0, 8), 16);
+}
+
+function unit(salt) {
+    return hash32(`${SEED}:${PHASE}:${salt}:${__ENV.OP}:${iteration()}`) / 4294967296;
+}
+
+function pick(salt, from, to) {
+    return from + Math.floor(unit(salt) * (to - from + 1));
+}
+
+// Совпадает с loadtest_contractor_id() из sql/functions.sql
+function contractorId(g) {
+    const hex = crypto.md5(`fepro-loadtest-${g}`, 'hex');
+    return `${hex.substring(0, 8)}-${hex.substring(8, 12)}-${hex.substring(12, 16)}-${hex.substring(16, 20)}-${hex.substring(20)}`;
+}
+
+function contractorName(g) {
+    return `ООО Контрагент ${String(g).padStart(7, '0')}`;
+}
+
+// Совпадает с loadtest_contractor_status() из sql/functions.sql
+function contractorStatus(g) {
+    const r = g % 100;
+    if (r === 0) return 'BLOCKED';
+    if (r < 10) return 'PENDING';
+    if (r < 30) return 'INACTIVE';
+    return 'ACTIVE';
+}
+
+function variables(op) {
+    switch (op) {
+        case 'list':
+            return { status: 'BLOCKED' };
+        case 'list_all':
+            return {};
+        case 'search':
+            return { name: String(pick('search', 1, CONTRACTORS)).padStart(7, '0') };
+        case 'nearby':
+            return {
+                lat: 43 + unit('lat') * 25,
+                lng: 30 + unit('lng') * 100,
+                radius: 0.1,
+            };
+        case 'detail':
+            return { id: contractorId(pick('detail', 1, CONTRACTORS)) };
+        case 'create':
+            return {
+                input: {
+                    name: `LT-NEW ${PHASE} ${iteration()}`,
+                    email: `new.${PHASE}.${iteration()}@loadtest.fepro.local`,
+                    status: 'PENDING',
+                },
+            };
+        case 'update': {
+            // Обновляются только контрагенты окна, которое восстанавливает sql/reset.sql
+            const g = pick('update', CONTRACTORS - UPDATE_WINDOW + 1, CONTRACTORS);
+            return {
+                input: {
+                    id: contractorId(g),
+                    name: contractorName(g),
+                    email: `contractor${g}@loadtest.fepro.local`,
+                    status: contractorStatus(g),
+                },
+            };
+        }
+        default:
+            throw new Error(`Unknown operation: ${op}`);
+    }
+}
+
+// Basic-аутентификация пользователя профиля loadtest (spring.security.user)
+const headers = {
+    'Content-Type': 'application/json',
+    'Authorization': `Basic ${encoding.b64encode(`${__ENV.LOADTEST_USER || 'loadtest'}:${__ENV.LOADTEST_PASSWORD || ''}`)}`,
+};
+
+export function run() {
+    const op = __ENV.OP;
+    const res = http.post(
+        GRAPHQL_URL,
+        JSON.stringify({ query: QUERIES[op], variables: variables(op) }),
+        { headers: headers, tags: { op: op, name: op } },
+    );
+
+    let errors = 0;
+    if (res.status === 200) {
+        const body = res.json();
+        if (body.errors && body.errors.length > 0) {
+            errors = body.errors.length;
+        }
+    }
+    graphqlErrors.add(errors, { op: op });
+}
+
+export function handleSummary(data) {
+    return {
+        [SUMMARY_FILE]: JSON.stringify(data, null, 2),
+    };
+}
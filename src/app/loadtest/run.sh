@@ -0,0 +1,539 @@
+#!/bin/bash
+# FEPRO - Federation Professionals
+# Load test runner for the GraphQL API against a local PostgreSQL/PostGIS
+#
+# Usage: ./src/app/loadtest/run.sh [command]
+# Commands:
+#   all   - start database and application, seed if needed, calibrate and run (default)
+#   up    - start the PostGIS container
+#   seed  - seed the synthetic dataset (application must have applied migrations)
+#   run   - calibrate and run against an already running application (BASE_URL)
+#   down  - stop the PostGIS container and remove the dataset
+#
+# Parameters (environment):
+#   CONTRACTORS=1000000 CONTACTS_PER_CONTRACTOR=2 UPDATE_WINDOW=10000
+#   DURATION=5m WARMUP=1m SEED=42 CALIBRATION_ITERATIONS=20
+#   RATE_LIST=0.05 RATE_LIST_ALL=0 RATE_SEARCH=0.1 RATE_NEARBY=0.05 RATE_DETAIL=5 RATE_CREATE=1 RATE_UPDATE=1
+#   BASE_URL=http://localhost:8082 JAVA_OPTS="-Xms1g -Xmx1g" LOADTEST_DB_PORT=5433
+#   LOADTEST_USER=loadtest LOADTEST_PASSWORD - Basic auth credentials of the loadtest profile;
+#   "all" generates a random password, "run" requires the one the application was started with
+
+set -e
+
+# Configuration
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+PROJECT_DIR="$(cd "$SCRIPT_DIR/../../.." && pwd)"
+COMMAND="${1:-all}"
+COMPOSE_FILE="$SCRIPT_DIR/docker-compose.yml"
+K6_SCRIPT="k6/graphql-mixed.js"
+K6_IMAGE="${K6_IMAGE:-grafana/k6:0.54.0}"
+
+export CONTRACTORS="${CONTRACTORS:-1000000}"
+export CONTACTS_PER_CONTRACTOR="${CONTACTS_PER_CONTRACTOR:-2}"
+export UPDATE_WINDOW="${UPDATE_WINDOW:-10000}"
+export DURATION="${DURATION:-5m}"
+export WARMUP="${WARMUP:-1m}"
+export SEED="${SEED:-42}"
+export BASE_URL="${BASE_URL:-http://localhost:8082}"
+export LOADTEST_DB_PORT="${LOADTEST_DB_PORT:-5433}"
+export LOADTEST_USER="${LOADTEST_USER:-loadtest}"
+CALIBRATION_ITERATIONS="${CALIBRATION_ITERATIONS:-20}"
+JAVA_OPTS="${JAVA_OPTS:--Xms1g -Xmx1g}"
+
+OPERATIONS="list list_all search nearby detail create update"
+
+# Problems that make a k6 summary unusable for comparison: errors, failures, dropped iterations
+JQ_PROBLEMS='.metrics as $m
+    | [($m | keys[] | capture("^http_reqs\\{op:(?<op>[a-z_]+)\\}$") | .op) as $op
+        | (($m["graphql_errors{op:\($op)}"].values.count // 0) as $e
+            | select($e > 0) | "\($stage) \($op): \($e) GraphQL errors"),
+          (($m["http_req_failed{op:\($op)}"].values.rate // 0) as $f
+            | select($f > 0) | "\($stage) \($op): \($f * 10000 | round / 100)% HTTP failures")]
+    + [($m.dropped_iterations.values.count // 0) as $d
+        | select($d > 0) | "\($stage): \($d) dropped iterations (arrival rate not sustained)"]'
+METRIC_URL="$BASE_URL/actuator/metrics/spring.data.repository.invocations"
+APP_PID=""
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+NC='\033[0m' # No Color
+
+# Logging function
+log() {
+    echo -e "${BLUE}[$(date +'%Y-%m-%d %H:%M:%S')]${NC} $1"
+}
+
+error() {
+    echo -e "${RED}[ERROR]${NC} $1"
+    exit 1
+}
+
+success() {
+    echo -e "${GREEN}[SUCCESS]${NC} $1"
+}
+
+warning() {
+    echo -e "${YELLOW}[WARNING]${NC} $1"
+}
+
+compose() {
+    if docker compose version &> /dev/null; then
+        docker compose -f "$COMPOSE_FILE" "$@"
+    else
+        docker-compose -f "$COMPOSE_FILE" "$@"
+    fi
+}
+
+table() {
+    if command -v column &> /dev/null; then
+        column -t
+    else
+        cat
+    fi
+}
+
+psql_exec() {
+    compose exec -T postgis psql -U fepro_user -d fepro_loadtest -v ON_ERROR_STOP=1 "$@"
+}
+
+# Check prerequisites
+check_prerequisites() {
+    log "Checking prerequisites..."
+
+    if ! docker info &> /dev/null; then
+        error "Docker is not running. Please start Docker first."
+    fi
+
+    for tool in curl jq; do
+        if ! command -v "$tool" &> /dev/null; then
+            error "$tool is required"
+        fi
+    done
+
+    success "Prerequisites check passed"
+}
+
+# The loadtest profile has no default password, so the application cannot start with known credentials
+generate_password() {
+    if [ -z "$LOADTEST_PASSWORD" ]; then
+        LOADTEST_PASSWORD=$(head -c 16 /dev/urandom | od -An -tx1 | tr -d ' \n')
+    fi
+    export LOADTEST_PASSWORD
+}
+
+require_password() {
+    if [ -z "$LOADTEST_PASSWORD" ]; then
+        error "LOADTEST_PASSWORD must match the password the application was started with"
+    fi
+    export LOADTEST_PASSWORD
+}
+
+# Credentials go through a curl config on a pipe, not the command line
+api() {
+    local credentials="$LOADTEST_USER:$LOADTEST_PASSWORD"
+    credentials="${credentials//\\/\\\\}"
+    curl -sf -K <(printf 'user = "%s"\n' "${credentials//\"/\\\"}") "$@"
+}
+
+# Start PostGIS
+start_database() {
+    log "Starting PostGIS on port $LOADTEST_DB_PORT..."
+
+    compose up -d postgis
+
+    for _ in $(seq 1 60); do
+        if compose exec -T postgis pg_isready -U fepro_user -d fepro_loadtest &> /dev/null; then
+            success "PostGIS is ready"
+            return 0
+        fi
+        sleep 2
+    done
+
+    error "PostGIS did not become ready"
+}
+
+# Build and start the application with the loadtest profile
+start_application() {
+    log "Building application..."
+
+    (cd "$PROJECT_DIR" && mvn -B -q -DskipTests -Dskip.installnodenpm -Dskip.npm package)
+
+    local jar
+    jar=$(ls "$PROJECT_DIR"/target/fepro-*.jar | grep -v '\.original$' | head -n 1)
+
+    log "Starting application: $jar"
+
+    # shellcheck disable=SC2086
+    java $JAVA_OPTS -jar "$jar" --spring.profiles.active=loadtest > "$RESULTS_DIR/app.log" 2>&1 &
+    APP_PID=$!
+    trap stop_application EXIT
+
+    wait_for_application
+}
+
+stop_application() {
+    if [ -n "$APP_PID" ] && kill -0 "$APP_PID" 2> /dev/null; then
+        log "Stopping application (pid $APP_PID)..."
+        kill "$APP_PID"
+        wait "$APP_PID" 2> /dev/null || true
+    fi
+}
+
+wait_for_application() {
+    log "Waiting for $BASE_URL/actuator/health..."
+
+    for _ in $(seq 1 90); do
+        # jq -e exits with 0 on empty input (jq 1.6), so the status is compared as a string
+        if [ "$(api "$BASE_URL/actuator/health" 2> /dev/null | jq -r .status 2> /dev/null)" = "UP" ]; then
+            success "Application is up"
+            return 0
+        fi
+        if [ -n "$APP_PID" ] && ! kill -0 "$APP_PID" 2> /dev/null; then
+            error "Application exited, see $RESULTS_DIR/app.log"
+        fi
+        sleep 2
+    done
+
+    error "Application did not become healthy"
+}
+
+# Rows in the dataset tables: "<contractors> <contacts>"; contractors created by a previous run
+# are not counted unless "all" is given as an argument
+dataset_counts() {
+    local filter="WHERE name NOT LIKE 'LT-NEW %'"
+    if [ "$1" = "all" ]; then
+        filter=""
+    fi
+    psql_exec -tA -F ' ' -c \
+        "SELECT (SELECT count(*) FROM contractors $filter), (SELECT count(*) FROM contractor_contacts)"
+}
+
+# Seed the dataset unless it already has exactly the requested size.
+# seed.sql skips existing rows, so an interrupted seed is completed by running it again
+seed_database() {
+    local expected_contacts=$((CONTRACTORS * CONTACTS_PER_CONTRACTOR))
+    local contractors contacts
+
+    read -r contractors contacts <<< "$(dataset_counts)"
+
+    if [ "$contractors" -eq "$CONTRACTORS" ] && [ "$contacts" -eq "$expected_contacts" ]; then
+        log "Dataset with $CONTRACTORS contractors is already seeded"
+        return 0
+    fi
+
+    if [ "$contractors" -gt "$CONTRACTORS" ] || [ "$contacts" -gt "$expected_contacts" ]; then
+        error "Database has $contractors contractors and $contacts contacts, more than requested ($CONTRACTORS and $expected_contacts). Run '$0 down' to remove the dataset"
+    fi
+
+    log "Seeding $CONTRACTORS contractors ($CONTACTS_PER_CONTRACTOR contacts each)..."
+
+    psql_exec -v contractors="$CONTRACTORS" \
+        -v contacts_per_contractor="$CONTACTS_PER_CONTRACTOR" \
+        -f /loadtest/sql/seed.sql
+
+    read -r contractors contacts <<< "$(dataset_counts)"
+    if [ "$contractors" -ne "$CONTRACTORS" ] || [ "$contacts" -ne "$expected_contacts" ]; then
+        error "Seeding left $contractors contractors and $contacts contacts, expected $CONTRACTORS and $expected_contacts"
+    fi
+
+    success "Dataset seeded"
+}
+
+reset_database() {
+    log "Resetting dataset..."
+
+    psql_exec -q -v contractors="$CONTRACTORS" \
+        -v update_from="$((CONTRACTORS - UPDATE_WINDOW + 1))" \
+        -f /loadtest/sql/reset.sql
+
+    psql_exec -q -c "CREATE EXTENSION IF NOT EXISTS pg_stat_statements"
+}
+
+# Exit code 99 (thresholds crossed) is not fatal: the summary is still written
+# and its problems are recorded in the report
+run_k6() {
+    local status=0
+
+    # Credentials reach k6 through the exported environment (__ENV), not as -e values,
+    # so they appear neither in meta.json nor in the process list
+    if command -v k6 &> /dev/null; then
+        (cd "$SCRIPT_DIR" && k6 run --quiet "$@" "$K6_SCRIPT") || status=$?
+    else
+        # The image runs as uid 12345; run as the host user so handleSummary can write results/
+        docker run --rm --network host --user "$(id -u):$(id -g)" \
+            -e LOADTEST_USER -e LOADTEST_PASSWORD \
+            -v "$SCRIPT_DIR:/loadtest" -w /loadtest \
+            "$K6_IMAGE" run --quiet "$@" "$K6_SCRIPT" || status=$?
+    fi
+
+    if [ "$status" -ne 0 ] && [ "$status" -ne 99 ]; then
+        error "k6 failed with exit code $status"
+    fi
+}
+
+# Problems found in a k6 summary as a JSON array of strings
+summary_problems() {
+    jq -c --arg stage "$2" "$JQ_PROBLEMS" "$1"
+}
+
+k6_env() {
+    local var
+    for var in BASE_URL CONTRACTORS UPDATE_WINDOW SEED DURATION WARMUP \
+               RATE_LIST RATE_LIST_ALL RATE_SEARCH RATE_NEARBY RATE_DETAIL RATE_CREATE RATE_UPDATE; do
+        if [ -n "${!var}" ]; then
+            printf -- '-e %s=%s\n' "$var" "${!var}"
+        fi
+    done
+}
+
+# ContractorRepository invocations by method: {"findById": 123, ...}
+repository_snapshot() {
+    local methods method count
+    local snapshot="{}"
+
+    methods=$(api "$METRIC_URL?tag=repository:ContractorRepository" \
+        | jq -r '.availableTags[] | select(.tag == "method") | .values[]' 2> /dev/null || true)
+
+    for method in $methods; do
+        count=$(api "$METRIC_URL?tag=repository:ContractorRepository&tag=method:$method" \
+            | jq '.measurements[] | select(.statistic == "COUNT") | .value')
+        snapshot=$(jq -c --arg m "$method" --argjson c "$count" '. + {($m): $c}' <<< "$snapshot")
+    done
+
+    echo "$snapshot"
+}
+
+repository_delta() {
+    jq -cn --argjson before "$1" --argjson after "$2" \
+        '$after | with_entries(.value -= ($before[.key] // 0)) | with_entries(select(.value > 0))'
+}
+
+# Repository queries per request, measured by running each operation alone
+calibrate() {
+    local op rate_var rate before after
+    local calibration="{}"
+    local problems="[]"
+
+    log "Calibrating repository queries per operation ($CALIBRATION_ITERATIONS requests each)..."
+
+    for op in $OPERATIONS; do
+        # Disabled operations are not calibrated; list_all is disabled by default
+        rate_var="RATE_$(echo "$op" | tr '[:lower:]' '[:upper:]')"
+        rate="${!rate_var}"
+        if [ "$op" = "list_all" ]; then
+            rate="${rate:-0}"
+        fi
+        if [ "$rate" = "0" ]; then
+            continue
+        fi
+
+        before=$(repository_snapshot)
+        # shellcheck disable=SC2046
+        run_k6 $(k6_env) -e PHASE=calibration -e ONLY_OP="$op" -e ITERATIONS="$CALIBRATION_ITERATIONS" \
+            -e SUMMARY_FILE="results/$RUN_ID/calibration-$op.json"
+        after=$(repository_snapshot)
+
+        problems=$(jq -c --argjson p "$(summary_problems "$RESULTS_DIR/calibration-$op.json" calibration)" \
+            '. + $p' <<< "$problems")
+        calibration=$(jq -c --arg op "$op" --argjson n "$CALIBRATION_ITERATIONS" \
+            --argjson delta "$(repository_delta "$before" "$after")" \
+            '. + {($op): ($delta | map_values(. / $n))}' <<< "$calibration")
+    done
+
+    echo "$calibration" | jq . > "$RESULTS_DIR/queries-per-request.json"
+    echo "$problems" | jq . > "$RESULTS_DIR/calibration-problems.json"
+    success "Calibration finished"
+}
+
+# Called after reset_database, so the counts describe the dataset the run starts from
+write_meta() {
+    local commit branch dirty contractors contacts
+    commit=$(git -C "$PROJECT_DIR" rev-parse HEAD)
+    branch=$(git -C "$PROJECT_DIR" rev-parse --abbrev-ref HEAD)
+    dirty=$([ -n "$(git -C "$PROJECT_DIR" status --porcelain)" ] && echo true || echo false)
+    read -r contractors contacts <<< "$(dataset_counts all)"
+
+    jq -n \
+        --arg commit "$commit" \
+        --arg branch "$branch" \
+        --argjson dirty "$dirty" \
+        --arg date "$(date -u +%Y-%m-%dT%H:%M:%SZ)" \
+        --arg java "$(java -version 2>&1 | head -n 1)" \
+        --arg javaOpts "$JAVA_OPTS" \
+        --arg cpus "$(getconf _NPROCESSORS_ONLN)" \
+        --arg k6env "$(k6_env | tr '\n' ' ')" \
+        --argjson contractors "$contractors" \
+        --argjson contacts "$contacts" \
+        '{commit: $commit, branch: $branch, dirty: $dirty, date: $date,
+          java: $java, javaOpts: $javaOpts, cpus: ($cpus | tonumber), k6: $k6env,
+          dataset: {contractors: $contractors, contractorContacts: $contacts}}' \
+        > "$RESULTS_DIR/meta.json"
+}
+
+# Warm-up at the configured arrival rates (JIT, connection pool, PostgreSQL buffers).
+# Its summary is kept for reference but is not part of the report
+warm_up() {
+    if [ "$WARMUP" = "0" ]; then
+        return 0
+    fi
+
+    log "Warming up for $WARMUP..."
+
+    # shellcheck disable=SC2046
+    run_k6 $(DURATION="$WARMUP" k6_env) -e PHASE=warmup -e SUMMARY_FILE="results/$RUN_ID/warmup-summary.json"
+
+    if [ "$(summary_problems "$RESULTS_DIR/warmup-summary.json" warmup)" != "[]" ]; then
+        warning "Warm-up had errors or dropped iterations, see warmup-summary.json"
+    fi
+}
+
+# Mixed workload at the configured arrival rates
+run_load() {
+    local before after
+
+    reset_database
+    warm_up
+    psql_exec -q -c "SELECT pg_stat_statements_reset()" > /dev/null
+
+    log "Running mixed workload for $DURATION..."
+
+    before=$(repository_snapshot)
+    # shellcheck disable=SC2046
+    run_k6 $(k6_env) -e PHASE=load -e SUMMARY_FILE="results/$RUN_ID/k6-summary.json"
+    after=$(repository_snapshot)
+
+    repository_delta "$before" "$after" | jq . > "$RESULTS_DIR/repository-invocations.json"
+
+    psql_exec --csv -c "
+        SELECT calls, rows,
+               round(total_exec_time::numeric, 1) AS total_ms,
+               round(mean_exec_time::numeric, 3) AS mean_ms,
+               regexp_replace(query, '\s+', ' ', 'g') AS query
+        FROM pg_stat_statements
+        WHERE dbid = (SELECT oid FROM pg_database WHERE datname = current_database())
+        ORDER BY total_exec_time DESC
+        LIMIT 50" > "$RESULTS_DIR/pg-stat-statements.csv"
+
+    success "Mixed workload finished"
+}
+
+write_report() {
+    jq -n \
+        --slurpfile meta "$RESULTS_DIR/meta.json" \
+        --slurpfile k6 "$RESULTS_DIR/k6-summary.json" \
+        --slurpfile qpr "$RESULTS_DIR/queries-per-request.json" \
+        --slurpfile repo "$RESULTS_DIR/repository-invocations.json" \
+        --slurpfile calibration "$RESULTS_DIR/calibration-problems.json" \
+        --argjson problems "$(summary_problems "$RESULTS_DIR/k6-summary.json" load)" \
+        '($k6[0].metrics) as $m
+         | ($calibration[0] + $problems) as $all
+         | {
+             meta: $meta[0],
+             valid: ($all | length == 0),
+             problems: $all,
+             operations: (
+               [$m | keys[] | capture("^http_reqs\\{op:(?<op>[a-z_]+)\\}$") | .op]
+               | map({
+                   key: .,
+                   value: {
+                     requests: $m["http_reqs{op:\(.)}"].values.count,
+                     rps: $m["http_reqs{op:\(.)}"].values.rate,
+                     httpFailedRate: $m["http_req_failed{op:\(.)}"].values.rate,
+                     graphqlErrors: ($m["graphql_errors{op:\(.)}"].values.count // 0),
+                     latencyMs: ($m["http_req_duration{op:\(.)}"].values
+                                 | {avg, med, p90: .["p(90)"], p95: .["p(95)"], p99: .["p(99)"], max}),
+                     repositoryQueriesPerRequest: ($qpr[0][.] // {})
+                   }
+                 })
+               | from_entries),
+             throughputRps: $m.http_reqs.values.rate,
+             droppedIterations: ($m.dropped_iterations.values.count // 0),
+             repositoryInvocations: $repo[0]
+           }' > "$RESULTS_DIR/report.json"
+
+    print_report "$RESULTS_DIR/report.json"
+
+    if [ "$(jq -r .valid "$RESULTS_DIR/report.json")" != "true" ]; then
+        echo
+        warning "RUN IS INVALID - do not compare it with other runs:"
+        jq -r '.problems[] | "  - " + .' "$RESULTS_DIR/report.json"
+        exit 1
+    fi
+}
+
+print_report() {
+    echo
+    jq -r '
+        ["op", "requests", "rps", "p50", "p95", "p99", "max", "errors", "repo/req"],
+        (.operations | to_entries[] | [
+            .key,
+            .value.requests,
+            (.value.rps * 100 | round / 100),
+            (.value.latencyMs.med | round),
+            (.value.latencyMs.p95 | round),
+            (.value.latencyMs.p99 | round),
+            (.value.latencyMs.max | round),
+            (.value.graphqlErrors + (.value.httpFailedRate * .value.requests | round)),
+            ([.value.repositoryQueriesPerRequest[]] | add // 0)
+        ])
+        | @tsv' "$1" | table
+    echo
+    jq -r '"throughput: \(.throughputRps * 100 | round / 100) req/s, dropped iterations: \(.droppedIterations)"' "$1"
+    log "Results: $RESULTS_DIR"
+}
+
+prepare_results() {
+    RUN_ID="$(date +%Y%m%d-%H%M%S)-$(git -C "$PROJECT_DIR" rev-parse --short HEAD)"
+    RESULTS_DIR="$SCRIPT_DIR/results/$RUN_ID"
+    mkdir -p "$RESULTS_DIR"
+}
+
+# Main execution
+main() {
+    case "$COMMAND" in
+        "up")
+            check_prerequisites
+            start_database
+            ;;
+        "seed")
+            check_prerequisites
+            seed_database
+            ;;
+        "run")
+            check_prerequisites
+            require_password
+            prepare_results
+            wait_for_application
+            reset_database
+            write_meta
+            calibrate
+            run_load
+            write_report
+            ;;
+        "all")
+            check_prerequisites
+            generate_password
+            prepare_results
+            start_database
+            start_application
+            seed_database
+            reset_database
+            write_meta
+            calibrate
+            run_load
+            write_report
+            ;;
+        "down")
+            compose down -v
+            success "PostGIS stopped, dataset removed"
+            ;;
+        *)
+            error "Unknown command: $COMMAND. Use: all, up, seed, run, down"
+            ;;
+    esac
+}
+
+main "$@"
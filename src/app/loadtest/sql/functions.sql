@@ -0,0 +1,63 @@
+-- FEPRO - Federation Professionals
+-- Детерминированный генератор синтетических контрагентов для нагрузочного тестирования.
+-- Все значения вычисляются из порядкового номера g, поэтому набор данных
+-- одинаков при каждом заполнении и совпадает с тем, что рассчитывает k6/graphql-mixed.js.
+
+-- Псевдослучайное число [0, 1) из md5, стабильное между запусками
+CREATE OR REPLACE FUNCTION loadtest_unit(salt TEXT, g BIGINT) RETURNS DOUBLE PRECISION
+LANGUAGE sql IMMUTABLE AS $$
+    SELECT ('x' || substr(md5(salt || g), 1, 8))::bit(32)::bigint / 4294967296.0
+$$;
+
+-- ID контрагента; k6 вычисляет то же значение через crypto.md5
+CREATE OR REPLACE FUNCTION loadtest_contractor_id(g BIGINT) RETURNS UUID
+LANGUAGE sql IMMUTABLE AS $$
+    SELECT md5('fepro-loadtest-' || g)::uuid
+$$;
+
+-- Статусы: 1% BLOCKED, 9% PENDING, 20% INACTIVE, 70% ACTIVE
+CREATE OR REPLACE FUNCTION loadtest_contractor_status(g BIGINT) RETURNS VARCHAR
+LANGUAGE sql IMMUTABLE AS $$
+    SELECT CASE
+        WHEN g % 100 = 0 THEN 'BLOCKED'
+        WHEN g % 100 < 10 THEN 'PENDING'
+        WHEN g % 100 < 30 THEN 'INACTIVE'
+        ELSE 'ACTIVE'
+    END
+$$;
+
+-- Контрагенты с номерами from_g..to_g; координаты равномерно распределены
+-- в прямоугольнике lat 43..68, lng 30..130 (SRID 4326)
+CREATE OR REPLACE FUNCTION loadtest_contractors(from_g BIGINT, to_g BIGINT)
+RETURNS TABLE (
+    g BIGINT,
+    id UUID,
+    name VARCHAR,
+    legal_name VARCHAR,
+    inn VARCHAR,
+    kpp VARCHAR,
+    email VARCHAR,
+    phone VARCHAR,
+    address TEXT,
+    coordinates TEXT,
+    status VARCHAR,
+    created_at TIMESTAMP
+)
+LANGUAGE sql IMMUTABLE AS $$
+    SELECT
+        s.g,
+        loadtest_contractor_id(s.g),
+        'ООО Контрагент ' || lpad(s.g::text, 7, '0'),
+        'Общество с ограниченной ответственностью "Контрагент ' || lpad(s.g::text, 7, '0') || '"',
+        lpad(s.g::text, 10, '0'),
+        '7701' || lpad((s.g % 100000)::text, 5, '0'),
+        'contractor' || s.g || '@loadtest.fepro.local',
+        '+7900' || lpad(s.g::text, 7, '0'),
+        'г. Москва, ул. Нагрузочная, д. ' || s.g,
+        format('SRID=4326;POINT(%s %s)',
+               round((30 + loadtest_unit('lng', s.g) * 100)::numeric, 6),
+               round((43 + loadtest_unit('lat', s.g) * 25)::numeric, 6)),
+        loadtest_contractor_status(s.g),
+        TIMESTAMP '2025-01-01 00:00:00' + s.g * INTERVAL '1 second'
+    FROM generate_series(from_g, to_g) AS s(g)
+$$;
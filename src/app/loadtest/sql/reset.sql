@@ -0,0 +1,31 @@
+-- FEPRO - Federation Professionals
+-- Возврат набора данных в исходное состояние перед прогоном, чтобы результаты
+-- разных коммитов были сопоставимы:
+--   - удаляются контрагенты, созданные мутацией createContractor (префикс "LT-NEW ");
+--   - восстанавливаются контрагенты окна обновления update_from..contractors,
+--     которые updateContractor перезаписывает (в т.ч. обнуляет coordinates).
+--
+-- Usage: psql -v contractors=1000000 -v update_from=990001 -f reset.sql
+
+\set ON_ERROR_STOP on
+
+\ir functions.sql
+
+DELETE FROM contractors WHERE name LIKE 'LT-NEW %';
+
+UPDATE contractors t
+SET name = c.name,
+    legal_name = c.legal_name,
+    inn = c.inn,
+    kpp = c.kpp,
+    email = c.email,
+    phone = c.phone,
+    address = c.address,
+    coordinates = c.coordinates,
+    location = ST_GeomFromEWKT(c.coordinates),
+    status = c.status,
+    updated_at = c.created_at
+FROM loadtest_contractors(:update_from, :contractors) c
+WHERE t.id = c.id;
+
+VACUUM ANALYZE contractors;
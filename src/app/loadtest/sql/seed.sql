@@ -0,0 +1,48 @@
+-- FEPRO - Federation Professionals
+-- Заполнение базы нагрузочного тестирования синтетическими данными.
+-- Схема создается Liquibase при старте приложения в профиле loadtest.
+--
+-- Usage: psql -v contractors=1000000 -v contacts_per_contractor=2 -f seed.sql
+
+\set ON_ERROR_STOP on
+
+\if :{?contractors}
+\else
+    \set contractors 1000000
+\endif
+\if :{?contacts_per_contractor}
+\else
+    \set contacts_per_contractor 2
+\endif
+
+\ir functions.sql
+
+\echo 'Seeding' :contractors 'contractors...'
+INSERT INTO contractors (id, name, legal_name, inn, kpp, email, phone, address,
+                         coordinates, location, status, created_at, updated_at)
+SELECT c.id, c.name, c.legal_name, c.inn, c.kpp, c.email, c.phone, c.address,
+       c.coordinates, ST_GeomFromEWKT(c.coordinates), c.status, c.created_at, c.created_at
+FROM loadtest_contractors(1, :contractors) c
+ON CONFLICT (id) DO NOTHING;
+
+\echo 'Seeding' :contacts_per_contractor 'contacts per contractor...'
+INSERT INTO contractor_contacts (id, contractor_id, name, position, email, phone,
+                                 is_primary, created_at, updated_at)
+SELECT md5('fepro-loadtest-contact-' || s.g || '-' || n.n)::uuid,
+       loadtest_contractor_id(s.g),
+       'Контакт ' || n.n || ' контрагента ' || lpad(s.g::text, 7, '0'),
+       CASE WHEN n.n = 1 THEN 'Генеральный директор' ELSE 'Менеджер' END,
+       'contact' || n.n || '.' || s.g || '@loadtest.fepro.local',
+       '+7901' || lpad(s.g::text, 7, '0'),
+       n.n = 1,
+       TIMESTAMP '2025-01-01 00:00:00' + s.g * INTERVAL '1 second',
+       TIMESTAMP '2025-01-01 00:00:00' + s.g * INTERVAL '1 second'
+FROM generate_series(1, :contractors) AS s(g)
+CROSS JOIN generate_series(1, :contacts_per_contractor) AS n(n)
+ON CONFLICT (id) DO NOTHING;
+
+VACUUM ANALYZE contractors;
+VACUUM ANALYZE contractor_contacts;
+
+SELECT count(*) AS contractors FROM contractors;
+SELECT count(*) AS contractor_contacts FROM contractor_contacts;